@@ -1,2 +1,2 @@
-java com.ugos.acs.test.SPTest -a 10 -n 50 -i 2500 -r 100 -nz 10
+java colony.test.SPTest -a 10 -n 50 -i 2500 -r 100 -nz 10
 pause ----
\ No newline at end of file
@@ -18,70 +18,57 @@
 
 package colony;
 
-import java.io.FileOutputStream;
-import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An artificial ant.
  */
 public class Ant implements Runnable {
 
-	private static final Random RANDOM = new Random(System.currentTimeMillis());
-
 	/** determines the relative importance of pheromone vs distance (used upon choosing next graph node) */
-	private static  double B;// = 2;
+	private final double B;// = 2;
 
 	/** determines the relative importance of exploitation versus exploration (used upon choosing next graph node) */
-	private static  double Q0;// = 0.8;
+	private final double Q0;// = 0.8;
 
 	/** used upon updating tau (pheromone weight) */
-	private static  double R;// = 0.1;
+	private final double R;// = 0.1;
 
 	private final int antId;
 
-	private int[][] pathMatrix;
 	private int currentNode;
-	private final int startNode;
+	private int startNode;
 	private double pathDelta;
 	private final AntColony antColony;
 	private final List<Integer> pathList = new ArrayList<>();
 
 	private final List<Integer> nodesToVisitList = new ArrayList<>();
 
-	private static int GLOBAL_ID_COUNTER = 0;
-	private static PrintStream OUTPUT_STREAM;
-
-	private static List<Integer> BEST_PATH_LIST = null;
-	static double BEST_PATH_WEIGHT = Double.MAX_VALUE;
-	static int[][] BEST_PATH_MATRIX = null;
-	static int BEST_PATH_ITERATION = 0; // the iteration at which the best path was found
+	private static final AtomicInteger GLOBAL_ID_COUNTER = new AtomicInteger();
 
 	/**
-	 * Resets all global ant values.
+	 * @param startNode the ant starting node
+	 * @param antColony the ant colony the new ant belongs to
 	 */
-	public static void resetGlobalValues() {
-		BEST_PATH_WEIGHT = Double.MAX_VALUE;
-		BEST_PATH_LIST = null;
-		BEST_PATH_MATRIX = null;
-		BEST_PATH_ITERATION = 0;
-		OUTPUT_STREAM = null;
+	public Ant(final int startNode, final AntColony antColony, final double B, final double Q0, final double R) {
+		antId = GLOBAL_ID_COUNTER.incrementAndGet();
+		this.startNode = startNode;
+		this.antColony = antColony;
+		this.B = B;
+		this.Q0 = Q0;
+		this.R = R;
 	}
 
 	/**
+	 * Moves the start node, e.g. when the colony is reused for another graph.
+	 *
 	 * @param startNode the ant starting node
-	 * @param antColony the ant colony the new ant belongs to
 	 */
-	public Ant(final int startNode, final AntColony antColony, final double B, final double Q0, final double R) {
-		GLOBAL_ID_COUNTER++;
-		antId = GLOBAL_ID_COUNTER;
+	void setStartNode(final int startNode) {
 		this.startNode = startNode;
-		this.antColony = antColony;
-		Ant.B = B;
-		Ant.Q0 = Q0;
-		Ant.R = R;
 	}
 
 	/**
@@ -95,91 +82,51 @@ public class Ant implements Runnable {
 	}
 
 	/**
-	 * Inits the global output stream and the private members.
+	 * Inits the private members. The lists are reused from the previous iteration.
 	 */
-	private void initAnt() {
-		if (OUTPUT_STREAM == null) {
-			try {
-				OUTPUT_STREAM = new PrintStream(new FileOutputStream(antColony.getID()
-						+ "_"
-						+ antColony.getGraph().getNumberOfNodes()
-						+ "x"
-						+ antColony.getNumberOfAnts()
-						+ "x"
-						+ antColony.getMaxIterations()
-						+ "_ants.txt"));
-			} catch (final Exception e) {
-				e.printStackTrace();
-			}
-		}
-
+	void initAnt() {
 		final int numberOfNodes = antColony.getGraph().getNumberOfNodes();
 		currentNode = startNode;
-		pathMatrix = new int[numberOfNodes][numberOfNodes];
+		pathList.clear();
 		pathList.add(startNode);
 		pathDelta = 0;
 
 		// fill nodesToVisit map
+		nodesToVisitList.clear();
 		for (int i = 0; i < numberOfNodes; i++) {
 			nodesToVisitList.add(i);
 		}
-		nodesToVisitList.remove(startNode);
+		nodesToVisitList.remove(Integer.valueOf(startNode));
 	}
 
 	@Override
 	public void run() {
+		buildPath();
+
+		// notify the colony
+		antColony.antFinished(this);
+	}
+
+	/**
+	 * Visits all nodes, starting at the start node.
+	 */
+	void buildPath() {
 		final AntGraph graph = antColony.getGraph();
 
 		while (!nodesToVisitList.isEmpty()) {
-			int nextNode;
-
-			// compute next node and add edge weight to the total path weight
-			synchronized (graph) {
-				nextNode = computeNextNode(currentNode);
-				pathDelta += graph.getDelta(currentNode, nextNode);
-			}
+			// compute next node and add edge weight to the total path weight, tau is read without locking
+			final int nextNode = computeNextNode(currentNode);
+			pathDelta += graph.getDelta(currentNode, nextNode);
 
 			// add the current node the list of visited nodes
 			pathList.add(nextNode);
-			pathMatrix[currentNode][nextNode] = 1;
 
 			// update pheromones of the edge
-			synchronized (graph) {
-				updatePherormonesOfEdge(currentNode, nextNode);
-			}
+			updatePherormonesOfEdge(currentNode, nextNode);
 
 			// update the current node
 			currentNode = nextNode;
 		}
-
-		// update the best path values
-		synchronized (graph) {
-			if (pathDelta < BEST_PATH_WEIGHT) {
-				BEST_PATH_WEIGHT = pathDelta;
-				BEST_PATH_MATRIX = pathMatrix;
-				BEST_PATH_LIST = pathList;
-				BEST_PATH_ITERATION = antColony.getCurrentIteration();
-
-				OUTPUT_STREAM.println("Ant "
-						+ antId
-						+ ",\tbest path weight = "
-						+ BEST_PATH_WEIGHT
-						+ ",\tbest path iteration = "
-						+ BEST_PATH_ITERATION
-						+ ",\tnumber of visited nodes = "
-						+ BEST_PATH_LIST.size()
-						+ ",\tvisited nodes = "
-						+ BEST_PATH_LIST);
-			}
-		}
-
-		// notify the colony
-		antColony.antFinished();
-
-		// close file stream on end
-		if (antColony.done()) {
-			OUTPUT_STREAM.close();
-		}
 	}
 
 	/**
@@ -192,14 +139,15 @@ public class Ant implements Runnable {
 	 */
 	private int computeNextNode(final int currentNode) {
 		final AntGraph graph = antColony.getGraph();
+		final Random random = antColony.getRandom();
 
 		// generate a random number
-		final double q = RANDOM.nextDouble();
+		final double q = random.nextDouble();
 
 		// Exploitation
 		if (q <= Q0) {
 			int nextNode = -1;
-			double maxPheromoneWeight = 0;
+			double maxPheromoneWeight = -1;
 
 			// search the max of the value as defined in eq. a)
 			for (final int node : nodesToVisitList) {
@@ -219,16 +167,18 @@ public class Ant implements Runnable {
 			}
 
 			// delete the selected node from the list of node to visit
-			nodesToVisitList.remove(nextNode);
+			nodesToVisitList.remove(Integer.valueOf(nextNode));
 			return nextNode;
 
 			// Exploration
 		} else {
 			double sum = 0;
+			int lastNode = -1;
 
 			// sum up pheromone weights
 			for (final int node : nodesToVisitList) {
 				sum += graph.getTau(currentNode, node) * Math.pow(graph.getEtha(currentNode, node), B);
+				lastNode = node;
 			}
 
 			// get the average value
@@ -241,32 +191,57 @@ public class Ant implements Runnable {
 				//	final double p = (graph.getTau(currentNode, node) * Math.pow(graph.getEtha(currentNode, node), B)) / sum;
 
 				// if the value of p is greater the the average value the node is good
-				if ((graph.getTau(currentNode, node) * Math.pow(graph.getEtha(currentNode, node), B)) > average) {
+				if ((graph.getTau(currentNode, node) * Math.pow(graph.getEtha(currentNode, node), B)) >= average) {
 					// delete the selected node from the list of node to visit
-					nodesToVisitList.remove(node);
+					nodesToVisitList.remove(Integer.valueOf(node));
 					return node;
 				}
 			}
-		}
 
-		// if no node can be selected, go to node 0
-		return 0;
+			// rounding of the average can put it above every value, e.g. if all values are equal, take the last node
+			nodesToVisitList.remove(Integer.valueOf(lastNode));
+			return lastNode;
+		}
 	}
 
 	/**
 	 * Updates the pheromone weight of a given edge defined by a start node and an end node.
+	 * Only the row of the start node is locked, so other ants keep running.
 	 *
 	 * @param startNode start node
 	 * @param endNode end node
 	 */
-	public synchronized void updatePherormonesOfEdge(final int startNode, final int endNode) {
+	public void updatePherormonesOfEdge(final int startNode, final int endNode) {
 		final AntGraph graph = antColony.getGraph();
 
-		// compute the new pheromone weight as defined in eq. c)
-		final double newPheromoneWeight = (1 - R) * graph.getTau(startNode, endNode) + (R * (graph.getTau0()));
+		synchronized (graph.getRowLock(startNode)) {
+			// compute the new pheromone weight as defined in eq. c)
+			final double newPheromoneWeight = (1 - R) * graph.getTau(startNode, endNode) + (R * (graph.getTau0()));
+
+			// update tau
+			graph.updateTau(startNode, endNode, newPheromoneWeight);
+		}
+	}
+
+	/**
+	 * @return the id of the ant
+	 */
+	public int getID() {
+		return antId;
+	}
 
-		// update tau
-		graph.updateTau(startNode, endNode, newPheromoneWeight);
+	/**
+	 * @return the weight of the last path
+	 */
+	public double getPathDelta() {
+		return pathDelta;
+	}
+
+	/**
+	 * @return the nodes of the last path, owned by the ant
+	 */
+	List<Integer> getPathList() {
+		return pathList;
 	}
 
 	@Override
@@ -20,35 +20,50 @@ package colony;
 
 import java.io.FileOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An ant colony.
  */
 public class AntColony {
 
-	private static final Random RANDOM = new Random(System.currentTimeMillis());
+	private final Random random = new Random();
 
 	/** the pheromone decay parameter (used upon updating all pheromone weights) */
-	private static double A; // = 0.1;
+	private final double A; // = 0.1;
 
 	private PrintStream outputStream;
+	private PrintStream antsOutputStream;
 
 	private final AntGraph antGraph;
 	private Ant[] ants;
 	private final int numberOfAnts;
 	private int numberOfFinishedAnts;
+	private int numberOfFinishedTours;
 	private int iterationCounter;
 	private final int maxIterations;
+	private int maxStagnation;
 
 	private final int colonyId;
 
-	private static int GLOBAL_ID_COUNTER = 0;
+	private static final AtomicInteger GLOBAL_ID_COUNTER = new AtomicInteger();
 
 
-	private   double B;// = 2;
-	private   double Q0;// = 0.8;
-	private   double R;// = 0.1;
+	private final double B;// = 2;
+	private final double Q0;// = 0.8;
+	private final double R;// = 0.1;
+
+	private List<Integer> initialBestPath;
+	private BestPathListener bestPathListener;
+	private TourListener tourListener;
+
+	private double bestPathWeight = Double.MAX_VALUE;
+	private List<Integer> bestPathList;
+	private int[][] bestPathMatrix;
+	private int bestPathIteration; // the iteration at which the best path was found
 
 	/**
 	 * @param antGraph the graph
@@ -59,10 +74,9 @@ public class AntColony {
 		this.antGraph = antGraph;
 		this.numberOfAnts = numberOfAnts;
 		this.maxIterations = maxIterations;
-		GLOBAL_ID_COUNTER++;
-		colonyId = GLOBAL_ID_COUNTER;
+		colonyId = GLOBAL_ID_COUNTER.incrementAndGet();
 
-		AntColony.A = A;
+		this.A = A;
 		this.B = B;
 		this.Q0 = Q0;
 		this.R = R;
@@ -70,27 +84,26 @@ public class AntColony {
 	}
 
 	/**
-	 * Starts the ant colony.
+	 * Starts the ant colony. Every ant runs in its own thread, results are written to the colony and ants files.
 	 */
 	public synchronized void start() {
 		// creates all ants
-		ants = createAnts();
+		createAnts();
+		resetBestPath();
 
 		iterationCounter = 0;
-		try {
-			outputStream = new PrintStream(new FileOutputStream(
-					colonyId + "_" + antGraph.getNumberOfNodes() + "x" + ants.length + "x" + maxIterations + "_colony.txt"));
-		} catch (final Exception e) {
-			e.printStackTrace();
-		}
+		numberOfFinishedTours = 0;
+		openOutputStreams();
 
 		// loop for all iterations
-		while (iterationCounter < maxIterations) {
+		while (!done()) {
 			// run an iteration
 			doIteration();
 			try {
 				// wait for all ants to finish
-				wait();
+				while (numberOfFinishedAnts < numberOfAnts) {
+					wait();
+				}
 			} catch (final InterruptedException e) {
 				e.printStackTrace();
 			}
@@ -101,11 +114,184 @@ public class AntColony {
 			}
 		}
 
-		if (iterationCounter == maxIterations) {
-			outputStream.close();
+		closeOutputStreams();
+	}
+
+	/**
+	 * Solves the graph on the calling thread without writing any files.
+	 * Used to run many small colonies side by side on a shared pool of threads. The colony can solve again
+	 * after its graph was reloaded with {@link AntGraph#load(int, double[][])}, reusing its ants and best path matrix.
+	 */
+	public synchronized void solve() {
+		createAnts();
+		resetBestPath();
+
+		iterationCounter = 0;
+		numberOfFinishedTours = 0;
+		while (!done()) {
+			numberOfFinishedAnts = 0;
+			iterationCounter++;
+			for (int i = 0; i < ants.length; i++) {
+				ants[i].initAnt();
+				ants[i].buildPath();
+				antFinished(ants[i]);
+			}
+
+			updatePheromonesOfAllEdges();
+		}
+	}
+
+	/**
+	 * Starts the ant colony without a barrier between iterations. Every worker thread owns a share of the ants
+	 * and starts its next ant as soon as the previous one finished, so one slow ant does not leave the other
+	 * threads idle. The best path reinforcement of eq. d) is applied after every updateInterval finished tours.
+	 * The colony runs maxIterations * numberOfAnts tours in total.
+	 *
+	 * @param numberOfThreads the number of worker threads, at most one per ant
+	 * @param updateInterval the number of finished tours between two global pheromone updates
+	 */
+	public void startAsync(final int numberOfThreads, final int updateInterval) {
+		if (updateInterval <= 0) {
+			throw new IllegalArgumentException("updateInterval must be positive: " + updateInterval);
+		}
+
+		synchronized (this) {
+			createAnts();
+			resetBestPath();
+
+			iterationCounter = 0;
+			numberOfFinishedTours = 0;
+			openOutputStreams();
+		}
+
+		final Thread[] workers = new Thread[Math.max(1, Math.min(numberOfThreads, numberOfAnts))];
+		for (int w = 0; w < workers.length; w++) {
+			final int firstAnt = w;
+			workers[w] = new Thread(() -> runWorker(firstAnt, workers.length, updateInterval));
+			workers[w].setName("Colony " + colonyId + " worker " + w);
+			workers[w].start();
+		}
+
+		for (final Thread worker : workers) {
+			try {
+				worker.join();
+			} catch (final InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+
+		synchronized (this) {
+			closeOutputStreams();
 		}
 	}
 
+	/**
+	 * Runs the ants firstAnt, firstAnt + step, ... in turn until the colony is done.
+	 */
+	private void runWorker(final int firstAnt, final int step, final int updateInterval) {
+		int next = firstAnt;
+		boolean running = true;
+
+		while (running) {
+			final Ant ant = ants[next];
+			ant.initAnt();
+			ant.buildPath();
+			running = tourFinished(ant, updateInterval);
+
+			next += step;
+			if (next >= ants.length) {
+				next = firstAnt;
+			}
+		}
+	}
+
+	/**
+	 * Counts a tour of the asynchronous mode and applies the global pheromone update every updateInterval tours.
+	 * The update runs outside the colony lock, so the other workers keep finishing tours meanwhile.
+	 *
+	 * @param ant the ant that finished its tour
+	 * @param updateInterval the number of finished tours between two global pheromone updates
+	 * @return <code>false</code> if the colony is done
+	 */
+	private boolean tourFinished(final Ant ant, final int updateInterval) {
+		final List<Integer> path;
+		final double pathWeight;
+		final int tours;
+		final boolean running;
+
+		synchronized (this) {
+			if (done()) {
+				return false;
+			}
+
+			// tours count towards the iteration they would belong to with a barrier
+			updateBestPath(ant, numberOfFinishedTours / numberOfAnts + 1);
+			numberOfFinishedTours++;
+			iterationCounter = numberOfFinishedTours / numberOfAnts;
+			running = !done();
+
+			if (numberOfFinishedTours % updateInterval != 0) {
+				return running;
+			}
+
+			// the best path list is replaced, never modified, on improvement
+			path = bestPathList;
+			pathWeight = bestPathWeight;
+			tours = numberOfFinishedTours;
+		}
+
+		updatePheromonesAlongPath(path, pathWeight);
+		outputStream.println("tour " + tours + "\tbest path weight = " + pathWeight + "\taverage tau = " + antGraph.getAverageTau());
+
+		return running;
+	}
+
+	/**
+	 * Applies eq. d) like {@link #updatePheromonesOfAllEdges()} while ants are running: evaporates every edge and
+	 * reinforces the edges of the given path, locking one row of the graph at a time.
+	 *
+	 * @param path the nodes of the best path
+	 * @param pathWeight the weight of the best path
+	 */
+	private void updatePheromonesAlongPath(final List<Integer> path, final double pathWeight) {
+		final int numberOfNodes = antGraph.getNumberOfNodes();
+
+		for (int r = 0; r < numberOfNodes; r++) {
+			synchronized (antGraph.getRowLock(r)) {
+				for (int s = 0; s < numberOfNodes; s++) {
+					if (r != s) {
+						antGraph.updateTau(r, s, (1 - A) * antGraph.getTau(r, s));
+					}
+				}
+			}
+		}
+
+		for (int i = 1; i < path.size(); i++) {
+			final int r = path.get(i - 1);
+			final int s = path.get(i);
+			synchronized (antGraph.getRowLock(r)) {
+				antGraph.updateTau(r, s, antGraph.getTau(r, s) + A * (1 / pathWeight));
+			}
+		}
+	}
+
+	private void openOutputStreams() {
+		final String fileName = colonyId + "_" + antGraph.getNumberOfNodes() + "x" + ants.length + "x" + maxIterations;
+		try {
+			outputStream = new PrintStream(new FileOutputStream(fileName + "_colony.txt"));
+			antsOutputStream = new PrintStream(new FileOutputStream(fileName + "_ants.txt"));
+		} catch (final Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void closeOutputStreams() {
+		outputStream.close();
+		antsOutputStream.close();
+		outputStream = null;
+		antsOutputStream = null;
+	}
+
 	/**
 	 * Do perform the iteration.
 	 */
@@ -125,6 +311,36 @@ public class AntColony {
 		return antGraph;
 	}
 
+	/**
+	 * Seeds the random number generator of the ants, so that {@link #solve()} is repeatable.
+	 *
+	 * @param seed the seed
+	 */
+	public void setSeed(final long seed) {
+		random.setSeed(seed);
+	}
+
+	/**
+	 * @param bestPathListener notified on every new best path, or <code>null</code>
+	 */
+	public void setBestPathListener(final BestPathListener bestPathListener) {
+		this.bestPathListener = bestPathListener;
+	}
+
+	/**
+	 * @param tourListener notified on every finished tour, or <code>null</code>
+	 */
+	public void setTourListener(final TourListener tourListener) {
+		this.tourListener = tourListener;
+	}
+
+	/**
+	 * @return the random number generator of the ants of this colony
+	 */
+	Random getRandom() {
+		return random;
+	}
+
 	/**
 	 * @return the number of ants
 	 */
@@ -139,6 +355,22 @@ public class AntColony {
 		return maxIterations;
 	}
 
+	/**
+	 * Stops the colony early once the best path did not improve for the given number of iterations.
+	 *
+	 * @param maxStagnation the number of iterations without improvement, 0 to always run maxIterations
+	 */
+	public void setMaxStagnation(final int maxStagnation) {
+		this.maxStagnation = maxStagnation;
+	}
+
+	/**
+	 * @return the number of tours finished so far
+	 */
+	public synchronized int getNumberOfFinishedTours() {
+		return numberOfFinishedTours;
+	}
+
 	/**
 	 * @return the current iteration
 	 */
@@ -154,52 +386,159 @@ public class AntColony {
 	}
 
 	/**
-	 * Notifies that an ant finished.
+	 * Notifies that an ant finished and updates the best path values.
+	 *
+	 * @param ant the ant
 	 */
-	public synchronized void antFinished() {
+	public synchronized void antFinished(final Ant ant) {
+		updateBestPath(ant, iterationCounter);
+
 		numberOfFinishedAnts++;
+		numberOfFinishedTours++;
 
 		if (numberOfFinishedAnts == numberOfAnts) {
-			outputStream.println("\tbest path weight = " + Ant.BEST_PATH_WEIGHT + "\taverage tau = " + antGraph.getAverageTau());
+			if (outputStream != null) {
+				outputStream.println("\tbest path weight = " + bestPathWeight + "\taverage tau = " + antGraph.getAverageTau());
+			}
 			notify();
+		}
+	}
 
+	/**
+	 * Notifies the tour listener and makes the path of the ant the best path if it is shorter.
+	 *
+	 * @param ant the ant that finished its path
+	 * @param iteration the iteration the path belongs to
+	 */
+	private void updateBestPath(final Ant ant, final int iteration) {
+		if (tourListener != null) {
+			tourListener.tourFinished(ant.getPathList(), ant.getPathDelta(), iteration, numberOfFinishedTours + 1);
+		}
+
+		if (ant.getPathDelta() < bestPathWeight) {
+			setBestPath(ant.getPathList(), ant.getPathDelta());
+			bestPathIteration = iteration;
+
+			if (antsOutputStream != null) {
+				antsOutputStream.println("Ant "
+						+ ant.getID()
+						+ ",\tbest path weight = "
+						+ bestPathWeight
+						+ ",\tbest path iteration = "
+						+ bestPathIteration
+						+ ",\tnumber of visited nodes = "
+						+ bestPathList.size()
+						+ ",\tvisited nodes = "
+						+ bestPathList);
+			}
+
+			if (bestPathListener != null) {
+				bestPathListener.bestPathFound(new ArrayList<>(bestPathList), bestPathWeight, iteration, numberOfFinishedTours + 1);
+			}
 		}
 	}
 
 	/**
 	 * @return the overall best path weight.
 	 */
-	public double getBestPathValue() {
-		return Ant.BEST_PATH_WEIGHT;
+	public synchronized double getBestPathValue() {
+		return bestPathWeight;
+	}
+
+	/**
+	 * @return the nodes of the overall best path, or <code>null</code> if no path was found yet
+	 */
+	public synchronized List<Integer> getBestPathList() {
+		return bestPathList == null ? null : new ArrayList<>(bestPathList);
+	}
+
+	/**
+	 * Sets a tour the next start of the colony begins with as best path, e.g. the best tour of a previous solve.
+	 * The weight of the tour is recomputed on the graph of this colony. The tour is used once and then cleared,
+	 * it is ignored if its number of nodes does not match the graph.
+	 *
+	 * @param path the nodes of the tour, or <code>null</code> to start without best path
+	 */
+	public void setInitialBestPath(final List<Integer> path) {
+		initialBestPath = path;
 	}
 
 	/**
 	 * @return the iteration at which the best path was found.
 	 */
-	public int getLastBestPathIteration() {
-		return Ant.BEST_PATH_ITERATION;
+	public synchronized int getLastBestPathIteration() {
+		return bestPathIteration;
 	}
 
 	/**
-	 * @return <code>true</code> is iteration limit is reached.
+	 * @return <code>true</code> is iteration limit is reached or the best path stagnated.
 	 */
 	public boolean done() {
-		return iterationCounter == maxIterations;
+		return iterationCounter == maxIterations
+				|| (maxStagnation > 0 && iterationCounter - bestPathIteration >= maxStagnation);
 	}
 
 	/**
-	 * Creates an array of ants.
-	 *
-	 * @return a new array of ants
+	 * Creates the ants on the first start and reuses them afterwards, every ant starts at a random node.
 	 */
-	private Ant[] createAnts() {
-		Ant.resetGlobalValues();
-		final Ant[] ants = new Ant[numberOfAnts];
+	private void createAnts() {
+		if (ants == null) {
+			ants = new Ant[numberOfAnts];
+			for (int i = 0; i < numberOfAnts; i++) {
+				ants[i] = new Ant(0, this,B,Q0,R);
+			}
+		}
+
 		for (int i = 0; i < numberOfAnts; i++) {
-			ants[i] = new Ant((int) (antGraph.getNumberOfNodes() * RANDOM.nextDouble()), this,B,Q0,R); // start at a different node
+			ants[i].setStartNode((int) (antGraph.getNumberOfNodes() * random.nextDouble())); // start at a different node
+		}
+	}
+
+	/**
+	 * Clears the best path values, or sets them to the initial best path and clears it.
+	 */
+	private void resetBestPath() {
+		if (bestPathMatrix == null || bestPathMatrix.length < antGraph.getNumberOfNodes()) {
+			bestPathMatrix = new int[antGraph.getNumberOfNodes()][antGraph.getNumberOfNodes()];
+		} else if (bestPathList != null) {
+			for (int i = 1; i < bestPathList.size(); i++) {
+				bestPathMatrix[bestPathList.get(i - 1)][bestPathList.get(i)] = 0;
+			}
+		}
+
+		bestPathWeight = Double.MAX_VALUE;
+		bestPathList = null;
+		bestPathIteration = 0;
+
+		// the graph may have been reloaded with a different number of nodes since the path was set
+		if (initialBestPath != null && initialBestPath.size() == antGraph.getNumberOfNodes()) {
+			double pathWeight = 0;
+			for (int i = 1; i < initialBestPath.size(); i++) {
+				pathWeight += antGraph.getDelta(initialBestPath.get(i - 1), initialBestPath.get(i));
+			}
+			setBestPath(initialBestPath, pathWeight);
+		}
+		initialBestPath = null;
+	}
+
+	/**
+	 * Makes the given path the best path, reusing the best path matrix.
+	 *
+	 * @param path the nodes of the path
+	 * @param pathWeight the weight of the path
+	 */
+	private void setBestPath(final List<Integer> path, final double pathWeight) {
+		if (bestPathList != null) {
+			for (int i = 1; i < bestPathList.size(); i++) {
+				bestPathMatrix[bestPathList.get(i - 1)][bestPathList.get(i)] = 0;
+			}
+		}
+		for (int i = 1; i < path.size(); i++) {
+			bestPathMatrix[path.get(i - 1)][path.get(i)] = 1;
 		}
 
-		return ants;
+		bestPathWeight = pathWeight;
+		bestPathList = new ArrayList<>(path);
 	}
 
 	/**
@@ -214,7 +553,7 @@ public class AntColony {
 			for (int s = 0; s < antGraph.getNumberOfNodes(); s++) {
 				if (r != s) {
 					// get the value for delta tau
-					final double deltaTau = (1 / Ant.BEST_PATH_WEIGHT) * Ant.BEST_PATH_MATRIX[r][s];
+					final double deltaTau = (1 / bestPathWeight) * bestPathMatrix[r][s];
 
 					// get the value for pheromone evaporation as defined in eq. d)
 					evaporation = (1 - A) * antGraph.getTau(r, s);
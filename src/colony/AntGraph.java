@@ -19,14 +19,15 @@
 package colony;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 public class AntGraph implements Serializable {
 
 	private static final long serialVersionUID = 5561845194000144163L;
 
-	private final double[][] delta;
-	private final double[][] tau;
-	private final int numberOfNodes;
+	private double[][] delta;
+	private double[][] tau;
+	private int numberOfNodes;
 	private double tau0;
 
 	public AntGraph(final int numberOfNodes, final double[][] delta) {
@@ -37,13 +38,43 @@ public class AntGraph implements Serializable {
 		resetTau();
 	}
 
-	public void resetTau() {
-		final double averageDelta = average(delta);
+	/**
+	 * Creates an empty graph without console output, to be filled with {@link #load(int, double[][])}.
+	 */
+	public AntGraph() {
+		this.numberOfNodes = 0;
+		this.delta = new double[0][0];
+		this.tau = new double[0][0];
+	}
 
-		tau0 = 1 / (numberOfNodes * (0.5 * averageDelta));
+	/**
+	 * Reuses the graph for another instance. The pheromone matrix is only reallocated if it is too small,
+	 * so a pooled graph can solve many instances of up to the same size without allocating.
+	 *
+	 * @param numberOfNodes the number of nodes of the instance
+	 * @param delta the distance matrix of the instance
+	 */
+	public synchronized void load(final int numberOfNodes, final double[][] delta) {
+		this.numberOfNodes = numberOfNodes;
+		this.delta = delta;
+		if (tau.length < numberOfNodes) {
+			tau = new double[numberOfNodes][numberOfNodes];
+		}
+
+		initTau();
+	}
 
-		System.out.println("Average delta: " + averageDelta);
+	public synchronized void resetTau() {
+		initTau();
+
+		System.out.println("Average delta: " + average(delta));
 		System.out.println("Tau0: " + tau0);
+	}
+
+	private void initTau() {
+		final double averageDelta = average(delta);
+
+		tau0 = 1 / (numberOfNodes * (0.5 * averageDelta));
 
 		for (int r = 0; r < numberOfNodes; r++) {
 			for (int s = 0; s < numberOfNodes; s++) {
@@ -80,32 +111,95 @@ public class AntGraph implements Serializable {
 		return deltaString.append("\n\n\n").append(tauString).toString();
 	}
 
-	public synchronized int getNumberOfNodes() {
+	// The getters below are read by every ant on every step and do not lock the graph.
+	// Delta, the number of nodes and tau0 only change in load() and resetTau(), which must not run during a solve.
+	// Tau may be read while it is updated, writers lock the row of the edge, see getRowLock().
+
+	public int getNumberOfNodes() {
 		return numberOfNodes;
 	}
 
-	public synchronized double getDelta(final int r, final int s) {
+	public double getDelta(final int r, final int s) {
 		return delta[r][s];
 	}
 
-	public synchronized double getEtha(final int r, final int s) {
+	public double getEtha(final int r, final int s) {
 		return 1 / delta[r][s];
 	}
 
-	public synchronized double getTau(final int r, final int s) {
+	public double getTau(final int r, final int s) {
 		return tau[r][s];
 	}
 
-	public double getAverageTau() {
+	/**
+	 * @param r the start node
+	 * @return the lock guarding read-modify-write updates of the pheromones of all edges starting at r
+	 */
+	Object getRowLock(final int r) {
+		return tau[r];
+	}
+
+	/**
+	 * @return a copy of the pheromone matrix
+	 */
+	public synchronized double[][] getTauMatrix() {
+		final double[][] copy = new double[numberOfNodes][];
+		for (int r = 0; r < numberOfNodes; r++) {
+			copy[r] = Arrays.copyOf(tau[r], numberOfNodes);
+		}
+
+		return copy;
+	}
+
+	/**
+	 * Replaces the pheromone matrix, e.g. with a matrix converged on the same or a similar graph.
+	 *
+	 * @param matrix the new pheromone weights, copied into the graph
+	 */
+	public synchronized void setTauMatrix(final double[][] matrix) {
+		for (int r = 0; r < numberOfNodes; r++) {
+			System.arraycopy(matrix[r], 0, tau[r], 0, numberOfNodes);
+		}
+	}
+
+	/**
+	 * @return a copy of the distance matrix
+	 */
+	public synchronized double[][] getDeltaMatrix() {
+		final double[][] copy = new double[numberOfNodes][];
+		for (int r = 0; r < numberOfNodes; r++) {
+			copy[r] = Arrays.copyOf(delta[r], numberOfNodes);
+		}
+
+		return copy;
+	}
+
+	/**
+	 * @return a hash over the number of nodes and all distances, equal for graphs with equal distances
+	 */
+	public synchronized long getFingerprint() {
+		long hash = 0xcbf29ce484222325L ^ numberOfNodes;
+		for (int r = 0; r < numberOfNodes; r++) {
+			for (int s = 0; s < numberOfNodes; s++) {
+				hash = (hash ^ Double.doubleToLongBits(delta[r][s])) * 0x100000001b3L;
+			}
+		}
+
+		return hash;
+	}
+
+	public synchronized double getAverageTau() {
 		return average(tau);
 	}
 
-	public synchronized double getTau0() {
+	public double getTau0() {
 		return tau0;
 	}
 
-	public synchronized void updateTau(final int r, final int s, final double value) {
-		tau[r][s] = value;
+	public void updateTau(final int r, final int s, final double value) {
+		synchronized (tau[r]) {
+			tau[r][s] = value;
+		}
 	}
 
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2007-2016 Ugo Chirico
+ *
+ * This is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Affero GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package colony;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Solves many small TSP instances on a shared pool of worker threads.
+ * Every instance is solved by one colony on one worker, see {@link AntColony#solve()}, so no threads are
+ * created and no files are written per instance. Every worker reuses its own {@link AntColony} with its
+ * graph, ants and best path matrix.
+ */
+public class BatchSolver {
+
+	private final ExecutorService executor;
+
+	/** the colony of every worker, its graph is reloaded for every instance */
+	private final ThreadLocal<AntColony> colonies = new ThreadLocal<>();
+
+	private final int numberOfAnts;
+	private final int maxIterations;
+	private final int maxStagnation;
+	private final double A;
+	private final double B;
+	private final double Q0;
+	private final double R;
+
+	private final AtomicLong solvedInstances = new AtomicLong();
+
+	/** the time of the first submit and of the last solved instance, guarded by this */
+	private boolean submitted;
+	private long firstSubmitTime;
+	private long lastSolvedTime;
+
+	/**
+	 * @param numberOfThreads the number of worker threads
+	 * @param numberOfAnts the number of ants of every colony
+	 * @param maxIterations max number of iterations per instance
+	 * @param maxStagnation iterations without improvement after which an instance is done, 0 to always run maxIterations
+	 */
+	public BatchSolver(final int numberOfThreads, final int numberOfAnts, final int maxIterations, final int maxStagnation,
+			final double A, final double B, final double Q0, final double R) {
+		this.executor = Executors.newFixedThreadPool(numberOfThreads);
+		this.numberOfAnts = numberOfAnts;
+		this.maxIterations = maxIterations;
+		this.maxStagnation = maxStagnation;
+		this.A = A;
+		this.B = B;
+		this.Q0 = Q0;
+		this.R = R;
+	}
+
+	/**
+	 * Queues an instance.
+	 *
+	 * @param delta the distance matrix of the instance, not modified
+	 * @return the future result
+	 */
+	public Future<Result> submit(final double[][] delta) {
+		synchronized (this) {
+			if (!submitted) {
+				submitted = true;
+				firstSubmitTime = System.nanoTime();
+			}
+		}
+
+		return executor.submit(() -> solve(delta));
+	}
+
+	/**
+	 * Queues all instances and waits for their results.
+	 *
+	 * @param instances the distance matrices of the instances
+	 * @return the results, in the order of the instances
+	 */
+	public List<Result> solveAll(final Iterable<double[][]> instances) throws InterruptedException, ExecutionException {
+		final List<Future<Result>> futures = new ArrayList<>();
+		for (final double[][] delta : instances) {
+			futures.add(submit(delta));
+		}
+
+		final List<Result> results = new ArrayList<>(futures.size());
+		for (final Future<Result> future : futures) {
+			results.add(future.get());
+		}
+
+		return results;
+	}
+
+	/**
+	 * @return the number of solved instances
+	 */
+	public long getSolvedInstances() {
+		return solvedInstances.get();
+	}
+
+	/**
+	 * @return the number of solved instances per second from the first submit until the last solved instance,
+	 *         0 if no instance was solved yet
+	 */
+	public synchronized double getInstancesPerSecond() {
+		final long solved = solvedInstances.get();
+		if (solved == 0 || lastSolvedTime == firstSubmitTime) {
+			return 0;
+		}
+
+		return solved / ((lastSolvedTime - firstSubmitTime) / 1e9);
+	}
+
+	/**
+	 * Stops the workers once all queued instances are solved.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	private Result solve(final double[][] delta) {
+		AntColony antColony = colonies.get();
+		if (antColony == null) {
+			antColony = new AntColony(new AntGraph(), numberOfAnts, maxIterations, A, B, Q0, R);
+			antColony.setMaxStagnation(maxStagnation);
+			colonies.set(antColony);
+		}
+
+		antColony.getGraph().load(delta.length, delta);
+		antColony.solve();
+
+		synchronized (this) {
+			solvedInstances.incrementAndGet();
+			lastSolvedTime = System.nanoTime();
+		}
+
+		return new Result(antColony.getBestPathValue(), antColony.getBestPathList(),
+				antColony.getLastBestPathIteration(), antColony.getCurrentIteration());
+	}
+
+	/**
+	 * The result of one instance.
+	 */
+	public static class Result {
+		private final double bestPathValue;
+		private final List<Integer> bestPathList;
+		private final int bestPathIteration;
+		private final int iterations;
+
+		Result(final double bestPathValue, final List<Integer> bestPathList, final int bestPathIteration, final int iterations) {
+			this.bestPathValue = bestPathValue;
+			this.bestPathList = bestPathList;
+			this.bestPathIteration = bestPathIteration;
+			this.iterations = iterations;
+		}
+
+		/**
+		 * @return the best path weight
+		 */
+		public double getBestPathValue() {
+			return bestPathValue;
+		}
+
+		/**
+		 * @return the nodes of the best path
+		 */
+		public List<Integer> getBestPathList() {
+			return bestPathList;
+		}
+
+		/**
+		 * @return the iteration at which the best path was found
+		 */
+		public int getLastBestPathIteration() {
+			return bestPathIteration;
+		}
+
+		/**
+		 * @return the number of iterations run
+		 */
+		public int getIterations() {
+			return iterations;
+		}
+	}
+}
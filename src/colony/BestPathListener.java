@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2007-2016 Ugo Chirico
+ *
+ * This is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Affero GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package colony;
+
+import java.util.List;
+
+/**
+ * Notified by an {@link AntColony} or an {@link SPAntColony} whenever an ant finds a new best path.
+ * Called while the colony is locked, so implementations should return quickly.
+ */
+public interface BestPathListener {
+
+	/**
+	 * @param path the nodes of the new best path
+	 * @param pathWeight the weight of the new best path
+	 * @param iteration the iteration at which the path was found
+	 * @param tours the number of tours finished so far, including this one
+	 */
+	void bestPathFound(List<Integer> path, double pathWeight, int iteration, int tours);
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2007-2016 Ugo Chirico
+ *
+ * This is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Affero GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package colony;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache of converged pheromone matrices and best tours, keyed by graph fingerprint.
+ * A new solve of the same or a similar graph starts from the cached pheromones instead of tau0.
+ * Holds at most maxEntries graphs, the least recently used entry is evicted first.
+ */
+public class PheromoneCache {
+
+	private final int maxEntries;
+
+	/** max mean distance difference, relative to the average distance, for a graph to count as similar */
+	private final double maxDifference;
+
+	private final Map<Long, Entry> entries;
+
+	/**
+	 * @param maxEntries the max number of cached graphs
+	 * @param maxDifference the max relative mean distance difference of similar graphs, 0 for exact matches only
+	 */
+	public PheromoneCache(final int maxEntries, final double maxDifference) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+		}
+
+		this.maxEntries = maxEntries;
+		this.maxDifference = maxDifference;
+		this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Long, Entry> eldest) {
+				return size() > PheromoneCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Stores the current pheromones of the graph and the best tour of the colony.
+	 * Replaces a previous entry of the same graph.
+	 *
+	 * @param antColony a colony that finished solving its graph
+	 */
+	public synchronized void store(final AntColony antColony) {
+		final AntGraph graph = antColony.getGraph();
+		final List<Integer> bestPath = antColony.getBestPathList();
+		if (bestPath == null) {
+			return;
+		}
+
+		final long fingerprint = graph.getFingerprint();
+		entries.put(fingerprint, new Entry(fingerprint, graph.getDeltaMatrix(), graph.getTauMatrix(), bestPath));
+	}
+
+	/**
+	 * Seeds the graph and the best path of a colony that did not start yet from the closest cached entry.
+	 * The graph keeps its current pheromones if no cached graph is similar enough.
+	 *
+	 * @param antColony the colony to seed
+	 * @return <code>true</code> if the colony was seeded
+	 */
+	public synchronized boolean seed(final AntColony antColony) {
+		final AntGraph graph = antColony.getGraph();
+		Entry entry = entries.get(graph.getFingerprint());
+
+		if (entry == null || !hasDelta(entry, graph)) {
+			entry = findSimilar(graph);
+		}
+
+		if (entry == null) {
+			return false;
+		}
+
+		// mark the entry as recently used
+		entries.get(entry.fingerprint);
+		graph.setTauMatrix(entry.tau);
+		antColony.setInitialBestPath(entry.bestPath);
+		return true;
+	}
+
+	/**
+	 * @return the number of cached graphs
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Removes all cached graphs.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * @return <code>true</code> if the entry was stored for a graph with the same distances
+	 */
+	private boolean hasDelta(final Entry entry, final AntGraph graph) {
+		final int numberOfNodes = graph.getNumberOfNodes();
+		if (entry.delta.length != numberOfNodes) {
+			return false;
+		}
+
+		for (int r = 0; r < numberOfNodes; r++) {
+			for (int s = 0; s < numberOfNodes; s++) {
+				if (Double.compare(entry.delta[r][s], graph.getDelta(r, s)) != 0) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Searches the cached graph with the same number of nodes and the smallest mean distance difference.
+	 *
+	 * @param graph the graph to solve
+	 * @return the closest entry, or <code>null</code> if none is within maxDifference
+	 */
+	private Entry findSimilar(final AntGraph graph) {
+		if (maxDifference <= 0) {
+			return null;
+		}
+
+		final int numberOfNodes = graph.getNumberOfNodes();
+
+		double sum = 0;
+		for (int r = 0; r < numberOfNodes; r++) {
+			for (int s = 0; s < numberOfNodes; s++) {
+				sum += graph.getDelta(r, s);
+			}
+		}
+		final double averageDelta = sum / (numberOfNodes * numberOfNodes);
+
+		Entry closest = null;
+		double closestDifference = maxDifference * averageDelta;
+
+		for (final Entry entry : entries.values()) {
+			if (entry.delta.length != numberOfNodes) {
+				continue;
+			}
+
+			double difference = 0;
+			for (int r = 0; r < numberOfNodes; r++) {
+				for (int s = 0; s < numberOfNodes; s++) {
+					difference += Math.abs(entry.delta[r][s] - graph.getDelta(r, s));
+				}
+			}
+			difference /= numberOfNodes * numberOfNodes;
+
+			if (difference <= closestDifference) {
+				closestDifference = difference;
+				closest = entry;
+			}
+		}
+
+		return closest;
+	}
+
+	private static class Entry {
+		private final long fingerprint;
+		private final double[][] delta;
+		private final double[][] tau;
+		private final List<Integer> bestPath;
+
+		Entry(final long fingerprint, final double[][] delta, final double[][] tau, final List<Integer> bestPath) {
+			this.fingerprint = fingerprint;
+			this.delta = delta;
+			this.tau = tau;
+			this.bestPath = bestPath;
+		}
+	}
+}
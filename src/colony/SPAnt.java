@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2007-2016 Ugo Chirico
+ *
+ * This is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Affero GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package colony;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * An artificial ant searching a shortest path on a sparse graph.
+ * The ant only moves along existing edges and never visits a node twice.
+ */
+public class SPAnt implements Runnable {
+
+	private static final Random RANDOM = new Random(System.currentTimeMillis());
+
+	private static int GLOBAL_ID_COUNTER = 0;
+
+	private final int antId;
+
+	/** determines the relative importance of pheromone vs distance (used upon choosing next edge) */
+	private final double B;
+
+	/** determines the relative importance of exploitation versus exploration (used upon choosing next edge) */
+	private final double Q0;
+
+	/** used upon updating tau (pheromone weight) */
+	private final double R;
+
+	private final SPAntColony antColony;
+	private final boolean[] visited;
+	private int[] pathEdges;
+	private int numberOfPathEdges;
+	private int currentNode;
+	private double pathDelta;
+	private final List<Integer> pathList = new ArrayList<>();
+
+	/**
+	 * @param antColony the ant colony the new ant belongs to
+	 */
+	public SPAnt(final SPAntColony antColony, final double B, final double Q0, final double R) {
+		GLOBAL_ID_COUNTER++;
+		antId = GLOBAL_ID_COUNTER;
+		this.antColony = antColony;
+		this.B = B;
+		this.Q0 = Q0;
+		this.R = R;
+		visited = new boolean[antColony.getGraph().getNumberOfNodes()];
+		pathEdges = new int[16];
+	}
+
+	/**
+	 * Runs the ant.
+	 */
+	public void startAnt() {
+		initAnt();
+		final Thread thread = new Thread(this);
+		thread.setName("SPAnt " + antId);
+		thread.start();
+	}
+
+	/**
+	 * Clears the path of the previous iteration.
+	 */
+	private void initAnt() {
+		for (final int node : pathList) {
+			visited[node] = false;
+		}
+		pathList.clear();
+		numberOfPathEdges = 0;
+		pathDelta = 0;
+
+		currentNode = antColony.getSourceNode();
+		visited[currentNode] = true;
+		pathList.add(currentNode);
+	}
+
+	@Override
+	public void run() {
+		final SparseAntGraph graph = antColony.getGraph();
+		final int targetNode = antColony.getTargetNode();
+
+		while (currentNode != targetNode) {
+			final int nextEdge = computeNextEdge(currentNode);
+
+			// dead end, every neighbour has already been visited
+			if (nextEdge < 0) {
+				break;
+			}
+
+			final int nextNode = graph.getTarget(nextEdge);
+			pathDelta += graph.getDelta(nextEdge);
+			addPathEdge(nextEdge);
+			pathList.add(nextNode);
+			visited[nextNode] = true;
+
+			// update pheromones of the edge
+			updatePherormonesOfEdge(nextEdge);
+
+			currentNode = nextNode;
+		}
+
+		// notify the colony, only paths reaching the target compete for the best path
+		antColony.antFinished(this, currentNode == targetNode);
+	}
+
+	/**
+	 * Computes the next edge among the outgoing edges of the current node leading to unvisited nodes.
+	 * Exploitation (probability Q0) picks the edge with the largest pheromone weight as in eq. a).
+	 * Exploration picks an edge by roulette wheel, with probability proportional to its pheromone weight
+	 * as in eq. b). This differs from {@link Ant}, which takes the first node above the average weight.
+	 *
+	 * @param currentNode the current node
+	 * @return the next edge, or -1 if no unvisited node can be reached
+	 */
+	private int computeNextEdge(final int currentNode) {
+		final SparseAntGraph graph = antColony.getGraph();
+		final int firstEdge = graph.getFirstEdge(currentNode);
+		final int lastEdge = graph.getLastEdge(currentNode);
+
+		// generate a random number
+		final double q = RANDOM.nextDouble();
+
+		// Exploitation
+		if (q <= Q0) {
+			int nextEdge = -1;
+			double maxPheromoneWeight = -1;
+
+			// search the max of the value as defined in eq. a)
+			for (int e = firstEdge; e < lastEdge; e++) {
+				if (!visited[graph.getTarget(e)]) {
+					final double pheromoneWeight = graph.getTau(e) * Math.pow(graph.getEtha(e), B);
+					if (pheromoneWeight > maxPheromoneWeight) {
+						maxPheromoneWeight = pheromoneWeight;
+						nextEdge = e;
+					}
+				}
+			}
+
+			return nextEdge;
+
+			// Exploration
+		} else {
+			double sum = 0;
+			int lastCandidate = -1;
+
+			// sum up pheromone weights
+			for (int e = firstEdge; e < lastEdge; e++) {
+				if (!visited[graph.getTarget(e)]) {
+					sum += graph.getTau(e) * Math.pow(graph.getEtha(e), B);
+					lastCandidate = e;
+				}
+			}
+
+			// select an edge with the probability p as defined in eq. b)
+			double threshold = RANDOM.nextDouble() * sum;
+			for (int e = firstEdge; e < lastCandidate; e++) {
+				if (!visited[graph.getTarget(e)]) {
+					threshold -= graph.getTau(e) * Math.pow(graph.getEtha(e), B);
+					if (threshold <= 0) {
+						return e;
+					}
+				}
+			}
+
+			return lastCandidate;
+		}
+	}
+
+	/**
+	 * Updates the pheromone weight of a given edge as defined in eq. c).
+	 * Only the row of the current node is locked, so other ants keep running.
+	 *
+	 * @param e the edge, starting at the current node
+	 */
+	private void updatePherormonesOfEdge(final int e) {
+		final SparseAntGraph graph = antColony.getGraph();
+
+		synchronized (graph.getRowLock(currentNode)) {
+			graph.updateTau(e, (1 - R) * graph.getTau(e) + (R * graph.getTau0()));
+		}
+	}
+
+	private void addPathEdge(final int e) {
+		if (numberOfPathEdges == pathEdges.length) {
+			pathEdges = Arrays.copyOf(pathEdges, 2 * pathEdges.length);
+		}
+		pathEdges[numberOfPathEdges++] = e;
+	}
+
+	/**
+	 * @return the id of the ant
+	 */
+	public int getID() {
+		return antId;
+	}
+
+	/**
+	 * @return the weight of the last path
+	 */
+	public double getPathDelta() {
+		return pathDelta;
+	}
+
+	/**
+	 * @return a copy of the edges of the last path
+	 */
+	public int[] getPathEdges() {
+		return Arrays.copyOf(pathEdges, numberOfPathEdges);
+	}
+
+	/**
+	 * @return a copy of the nodes of the last path
+	 */
+	public List<Integer> getPathList() {
+		return new ArrayList<>(pathList);
+	}
+
+	@Override
+	public String toString() {
+		return "SPAnt " + antId + ":" + currentNode;
+	}
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2007-2016 Ugo Chirico
+ *
+ * This is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Affero GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package colony;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An ant colony searching the shortest path between two nodes of a sparse graph.
+ * Pheromone updates only touch existing edges, so every iteration costs O(edges) instead of O(nodes^2).
+ */
+public class SPAntColony {
+
+	private static int GLOBAL_ID_COUNTER = 0;
+
+	/** the pheromone decay parameter (used upon updating all pheromone weights) */
+	private final double A;
+	private final double B;
+	private final double Q0;
+	private final double R;
+
+	private PrintStream outputStream;
+	private PrintStream antsOutputStream;
+
+	private final SparseAntGraph antGraph;
+	private final int sourceNode;
+	private final int targetNode;
+	private SPAnt[] ants;
+	private final int numberOfAnts;
+	private int numberOfFinishedAnts;
+	private int numberOfFinishedTours;
+	private int iterationCounter;
+	private final int maxIterations;
+
+	private final int colonyId;
+
+	private double bestPathWeight = Double.MAX_VALUE;
+	private int[] bestPathEdges;
+	private List<Integer> bestPathList;
+	private int bestPathIteration;
+
+	private BestPathListener bestPathListener;
+
+	/**
+	 * @param antGraph the sparse graph
+	 * @param sourceNode the node every ant starts from
+	 * @param targetNode the node every ant tries to reach
+	 * @param numberOfAnts the number of ants in the new colony
+	 * @param maxIterations max number of iterations to run ants in
+	 */
+	public SPAntColony(final SparseAntGraph antGraph, final int sourceNode, final int targetNode, final int numberOfAnts,
+			final int maxIterations, final double A, final double B, final double Q0, final double R) {
+		this.antGraph = antGraph;
+		this.sourceNode = sourceNode;
+		this.targetNode = targetNode;
+		this.numberOfAnts = numberOfAnts;
+		this.maxIterations = maxIterations;
+		GLOBAL_ID_COUNTER++;
+		colonyId = GLOBAL_ID_COUNTER;
+
+		this.A = A;
+		this.B = B;
+		this.Q0 = Q0;
+		this.R = R;
+	}
+
+	/**
+	 * Starts the ant colony.
+	 */
+	public synchronized void start() {
+		// creates all ants
+		ants = createAnts();
+
+		iterationCounter = 0;
+		numberOfFinishedTours = 0;
+		bestPathWeight = Double.MAX_VALUE;
+		bestPathEdges = null;
+		bestPathList = null;
+		bestPathIteration = 0;
+
+		final String fileName = colonyId + "_" + antGraph.getNumberOfNodes() + "x" + ants.length + "x" + maxIterations;
+		try {
+			outputStream = new PrintStream(new FileOutputStream(fileName + "_sp_colony.txt"));
+			antsOutputStream = new PrintStream(new FileOutputStream(fileName + "_sp_ants.txt"));
+		} catch (final Exception e) {
+			e.printStackTrace();
+		}
+
+		// loop for all iterations
+		while (iterationCounter < maxIterations) {
+			// run an iteration
+			doIteration();
+			try {
+				// wait for all ants to finish
+				while (numberOfFinishedAnts < numberOfAnts) {
+					wait();
+				}
+			} catch (final InterruptedException e) {
+				e.printStackTrace();
+			}
+
+			synchronized (antGraph) {
+				// update pheromone weights of all edges
+				updatePheromonesOfAllEdges();
+			}
+		}
+
+		outputStream.close();
+		antsOutputStream.close();
+	}
+
+	/**
+	 * Do perform the iteration.
+	 */
+	private void doIteration() {
+		numberOfFinishedAnts = 0;
+		iterationCounter++;
+		outputStream.print("iteration " + iterationCounter);
+		for (int i = 0; i < ants.length; i++) {
+			ants[i].startAnt();
+		}
+	}
+
+	/**
+	 * Notifies that an ant finished.
+	 *
+	 * @param ant the ant
+	 * @param reachedTarget <code>true</code> if the ant reached the target node
+	 */
+	public synchronized void antFinished(final SPAnt ant, final boolean reachedTarget) {
+		if (reachedTarget && ant.getPathDelta() < bestPathWeight) {
+			bestPathWeight = ant.getPathDelta();
+			bestPathEdges = ant.getPathEdges();
+			bestPathList = ant.getPathList();
+			bestPathIteration = iterationCounter;
+
+			antsOutputStream.println("SPAnt "
+					+ ant.getID()
+					+ ",\tbest path weight = "
+					+ bestPathWeight
+					+ ",\tbest path iteration = "
+					+ bestPathIteration
+					+ ",\tnumber of visited nodes = "
+					+ bestPathList.size()
+					+ ",\tvisited nodes = "
+					+ bestPathList);
+
+			if (bestPathListener != null) {
+				bestPathListener.bestPathFound(new ArrayList<>(bestPathList), bestPathWeight, iterationCounter, numberOfFinishedTours + 1);
+			}
+		}
+
+		numberOfFinishedAnts++;
+		numberOfFinishedTours++;
+
+		if (numberOfFinishedAnts == numberOfAnts) {
+			outputStream.println("\tbest path weight = " + bestPathWeight + "\taverage tau = " + antGraph.getAverageTau());
+			notify();
+		}
+	}
+
+	/**
+	 * @return the graph
+	 */
+	public SparseAntGraph getGraph() {
+		return antGraph;
+	}
+
+	/**
+	 * @return the node every ant starts from
+	 */
+	public int getSourceNode() {
+		return sourceNode;
+	}
+
+	/**
+	 * @return the node every ant tries to reach
+	 */
+	public int getTargetNode() {
+		return targetNode;
+	}
+
+	/**
+	 * @return the number of ants
+	 */
+	public int getNumberOfAnts() {
+		return numberOfAnts;
+	}
+
+	/**
+	 * @return the iteration limit
+	 */
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+
+	/**
+	 * @return the current iteration
+	 */
+	public int getCurrentIteration() {
+		return iterationCounter;
+	}
+
+	/**
+	 * @return the number of paths the ants finished since the start, including dead ends
+	 */
+	public synchronized int getNumberOfFinishedTours() {
+		return numberOfFinishedTours;
+	}
+
+	/**
+	 * Sets the listener notified whenever an ant reaching the target finds a new best path.
+	 *
+	 * @param bestPathListener the listener, or <code>null</code>
+	 */
+	public void setBestPathListener(final BestPathListener bestPathListener) {
+		this.bestPathListener = bestPathListener;
+	}
+
+	/**
+	 * @return the ID of the colony
+	 */
+	public int getID() {
+		return colonyId;
+	}
+
+	/**
+	 * @return the overall best path weight, or <code>Double.MAX_VALUE</code> if no ant reached the target
+	 */
+	public synchronized double getBestPathValue() {
+		return bestPathWeight;
+	}
+
+	/**
+	 * @return the nodes of the overall best path, or <code>null</code> if no ant reached the target
+	 */
+	public synchronized List<Integer> getBestPathList() {
+		return bestPathList;
+	}
+
+	/**
+	 * @return the iteration at which the best path was found.
+	 */
+	public synchronized int getLastBestPathIteration() {
+		return bestPathIteration;
+	}
+
+	/**
+	 * @return <code>true</code> is iteration limit is reached.
+	 */
+	public boolean done() {
+		return iterationCounter == maxIterations;
+	}
+
+	/**
+	 * Creates an array of ants.
+	 *
+	 * @return a new array of ants
+	 */
+	private SPAnt[] createAnts() {
+		final SPAnt[] ants = new SPAnt[numberOfAnts];
+		for (int i = 0; i < numberOfAnts; i++) {
+			ants[i] = new SPAnt(this, B, Q0, R);
+		}
+
+		return ants;
+	}
+
+	/**
+	 * Evaporates the pheromone of every edge and reinforces the edges of the globally best path as defined in eq. d).
+	 * Runs in O(edges) since only existing edges carry pheromone.
+	 */
+	private void updatePheromonesOfAllEdges() {
+		for (int e = 0; e < antGraph.getNumberOfEdges(); e++) {
+			antGraph.updateTau(e, (1 - A) * antGraph.getTau(e));
+		}
+
+		// no ant reached the target yet, nothing to reinforce
+		if (bestPathEdges == null) {
+			return;
+		}
+
+		final double deltaTau = 1 / bestPathWeight;
+		for (final int e : bestPathEdges) {
+			antGraph.updateTau(e, antGraph.getTau(e) + A * deltaTau);
+		}
+	}
+}
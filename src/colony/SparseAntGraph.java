@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2007-2016 Ugo Chirico
+ *
+ * This is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Affero GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package colony;
+
+import java.io.Serializable;
+
+/**
+ * A sparse directed graph stored in compressed sparse row (CSR) form.
+ * The outgoing edges of node r are the edge indices in [getFirstEdge(r), getLastEdge(r)),
+ * sorted by target node. Delta and tau are kept per edge, so memory scales with the number of edges.
+ */
+public class SparseAntGraph implements Serializable {
+
+	private static final long serialVersionUID = -3021837640951473921L;
+
+	private final int numberOfNodes;
+	private final int[] rowOffsets;
+	private final int[] targets;
+	private final double[] delta;
+	private final double[] tau;
+	private double tau0;
+
+	/** one lock per node guarding the pheromones of its outgoing edges, empty arrays keep the graph serializable */
+	private final Object[] rowLocks;
+
+	/**
+	 * @param numberOfNodes the number of nodes
+	 * @param rowOffsets the edge offsets of every node, of length numberOfNodes + 1
+	 * @param targets the target node of every edge, sorted within each row
+	 * @param delta the weight of every edge
+	 */
+	public SparseAntGraph(final int numberOfNodes, final int[] rowOffsets, final int[] targets, final double[] delta) {
+		if (rowOffsets.length != numberOfNodes + 1 || targets.length != delta.length
+				|| rowOffsets[numberOfNodes] != targets.length) {
+			throw new IllegalArgumentException("Inconsistent CSR arrays");
+		}
+
+		this.numberOfNodes = numberOfNodes;
+		this.rowOffsets = rowOffsets;
+		this.targets = targets;
+		this.delta = delta;
+		this.tau = new double[delta.length];
+		this.rowLocks = new Object[numberOfNodes];
+		for (int r = 0; r < numberOfNodes; r++) {
+			rowLocks[r] = new Object[0];
+		}
+
+		resetTau();
+	}
+
+	/**
+	 * Builds a graph from an unordered list of directed edges.
+	 * Duplicate edges are kept, self loops are dropped.
+	 *
+	 * @param numberOfNodes the number of nodes
+	 * @param from the start node of every edge
+	 * @param to the end node of every edge
+	 * @param weights the weight of every edge
+	 * @return the new graph
+	 */
+	public static SparseAntGraph fromEdges(final int numberOfNodes, final int[] from, final int[] to, final double[] weights) {
+		final int[] rowOffsets = new int[numberOfNodes + 1];
+		for (int e = 0; e < from.length; e++) {
+			if (from[e] != to[e]) {
+				rowOffsets[from[e] + 1]++;
+			}
+		}
+		for (int r = 0; r < numberOfNodes; r++) {
+			rowOffsets[r + 1] += rowOffsets[r];
+		}
+
+		final int numberOfEdges = rowOffsets[numberOfNodes];
+		final int[] targets = new int[numberOfEdges];
+		final double[] delta = new double[numberOfEdges];
+		final int[] fill = new int[numberOfNodes];
+
+		// counting sort by start node, then insertion sort every row by target node
+		for (int e = 0; e < from.length; e++) {
+			if (from[e] != to[e]) {
+				final int r = from[e];
+				int i = rowOffsets[r] + fill[r]++;
+				while (i > rowOffsets[r] && targets[i - 1] > to[e]) {
+					targets[i] = targets[i - 1];
+					delta[i] = delta[i - 1];
+					i--;
+				}
+				targets[i] = to[e];
+				delta[i] = weights[e];
+			}
+		}
+
+		return new SparseAntGraph(numberOfNodes, rowOffsets, targets, delta);
+	}
+
+	public synchronized void resetTau() {
+		final double averageDelta = average(delta);
+
+		tau0 = 1 / (numberOfNodes * (0.5 * averageDelta));
+
+		System.out.println("Average delta: " + averageDelta);
+		System.out.println("Tau0: " + tau0);
+
+		for (int e = 0; e < tau.length; e++) {
+			tau[e] = tau0;
+		}
+	}
+
+	private double average(final double[] values) {
+		double sum = 0;
+		for (int e = 0; e < values.length; e++) {
+			sum += values[e];
+		}
+
+		return values.length == 0 ? 0 : sum / values.length;
+	}
+
+	/**
+	 * @param r the start node
+	 * @param s the end node
+	 * @return the index of the edge (r, s), or -1 if there is no such edge
+	 */
+	public int findEdge(final int r, final int s) {
+		int low = rowOffsets[r];
+		int high = rowOffsets[r + 1] - 1;
+		while (low <= high) {
+			final int middle = (low + high) >>> 1;
+			if (targets[middle] < s) {
+				low = middle + 1;
+			} else if (targets[middle] > s) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+
+		return -1;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+
+		for (int r = 0; r < numberOfNodes; r++) {
+			for (int e = rowOffsets[r]; e < rowOffsets[r + 1]; e++) {
+				builder.append(r).append(",").append(targets[e]).append(",")
+						.append(delta[e]).append(",").append(tau[e]).append("\n");
+			}
+		}
+
+		return builder.toString();
+	}
+
+	// The getters below are read by every ant on every step and do not lock the graph.
+	// Tau0 only changes in resetTau(), which must not run during a solve.
+	// Tau may be read while it is updated, writers lock the row of the edge, see getRowLock().
+
+	public int getNumberOfNodes() {
+		return numberOfNodes;
+	}
+
+	public int getNumberOfEdges() {
+		return targets.length;
+	}
+
+	/**
+	 * @param r the node
+	 * @return the index of the first outgoing edge of r
+	 */
+	public int getFirstEdge(final int r) {
+		return rowOffsets[r];
+	}
+
+	/**
+	 * @param r the node
+	 * @return the index after the last outgoing edge of r
+	 */
+	public int getLastEdge(final int r) {
+		return rowOffsets[r + 1];
+	}
+
+	public int getTarget(final int e) {
+		return targets[e];
+	}
+
+	public double getDelta(final int e) {
+		return delta[e];
+	}
+
+	public double getEtha(final int e) {
+		return 1 / delta[e];
+	}
+
+	public double getTau(final int e) {
+		return tau[e];
+	}
+
+	/**
+	 * @param r the start node
+	 * @return the lock guarding read-modify-write updates of the pheromones of all edges starting at r
+	 */
+	Object getRowLock(final int r) {
+		return rowLocks[r];
+	}
+
+	public synchronized double getAverageTau() {
+		return average(tau);
+	}
+
+	public double getTau0() {
+		return tau0;
+	}
+
+	/**
+	 * Sets the pheromone weight of an edge. Callers updating tau from its current value
+	 * while ants are running lock the row of the edge first, see getRowLock().
+	 */
+	public void updateTau(final int e, final double value) {
+		tau[e] = value;
+	}
+
+}
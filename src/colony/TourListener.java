@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2007-2016 Ugo Chirico
+ *
+ * This is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Affero GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package colony;
+
+import java.util.List;
+
+/**
+ * Notified by an {@link AntColony} whenever an ant finishes a tour, e.g. to evaluate tours by another measure
+ * than the open path weight the colony optimizes.
+ * Called while the colony is locked, so implementations should return quickly.
+ */
+public interface TourListener {
+
+	/**
+	 * @param path the nodes of the tour, owned by the ant and only valid during the call
+	 * @param pathWeight the weight of the tour
+	 * @param iteration the iteration the tour belongs to
+	 * @param tours the number of tours finished so far, including this one
+	 */
+	void tourFinished(List<Integer> path, double pathWeight, int iteration, int tours);
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2007-2016 Ugo Chirico
+ *
+ * This is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Affero GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package colony.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import colony.BatchSolver;
+
+/**
+ * Batch test on many random TSP instances with 30 to 100 nodes.
+ *
+ * Usage: BatchTest -t threads -b instances -a ants -i iterations -s stagnation
+ */
+public class BatchTest {
+    private static Random s_ran = new Random(System.currentTimeMillis());
+
+    public static void main(final String[] args) throws Exception {
+        // Print application prompt to console.
+        System.out.println("AntColonySystem batch for TSP");
+
+        //Parameter
+        int nThreads = Runtime.getRuntime().availableProcessors();
+        int nInstances = 1000;
+        int nAnts = 10;
+        int nIterations = 2500;
+        int nStagnation = 100;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            final int value = Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+                case "-t":
+                    nThreads = value;
+                    break;
+                case "-b":
+                    nInstances = value;
+                    break;
+                case "-a":
+                    nAnts = value;
+                    break;
+                case "-i":
+                    nIterations = value;
+                    break;
+                case "-s":
+                    nStagnation = value;
+                    break;
+                default:
+                    System.out.println("Unknown argument " + args[i]);
+            }
+        }
+
+        final List<double[][]> instances = new ArrayList<>();
+        for (int k = 0; k < nInstances; k++) {
+            final int nNodes = 30 + s_ran.nextInt(71);
+            final double d[][] = new double[nNodes][nNodes];
+            for (int i = 0; i < nNodes; i++) {
+                for (int j = i + 1; j < nNodes; j++) {
+                    d[i][j] = s_ran.nextDouble();
+                    d[j][i] = d[i][j];
+                }
+            }
+            instances.add(d);
+        }
+
+        final BatchSolver solver = new BatchSolver(nThreads, nAnts, nIterations, nStagnation, 0.1, 2, 0.8, 0.1);
+        final List<BatchSolver.Result> results = solver.solveAll(instances);
+        solver.shutdown();
+
+        double sum = 0;
+        for (final BatchSolver.Result result : results) {
+            sum += result.getBestPathValue();
+        }
+
+        System.out.println("Threads: " + nThreads + ", instances: " + results.size()
+                + ", average best path weight: " + sum / results.size()
+                + ", instances/s: " + solver.getInstancesPerSecond());
+    }
+
+}
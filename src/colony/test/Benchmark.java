@@ -0,0 +1,562 @@
+/*
+ * Copyright (C) 2007-2016 Ugo Chirico
+ *
+ * This is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Affero GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package colony.test;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import colony.AntColony;
+import colony.AntGraph;
+import colony.SPAntColony;
+import colony.SparseAntGraph;
+
+/**
+ * End-to-end benchmark measuring how fast the colonies reach a given result quality.
+ * Replays the shipped scenarios over fixed seeds: the shortest path runs of the SP_10/20/30x50x2500 launchers
+ * ({@link SPAntColony}, 50 nodes with 10 neighbours each, 10/20/30 ants x 2500 iterations) and the TSP run of
+ * TSPTest.launch (30 ants x 50 nodes x 2500 iterations), followed by larger generated TSP instances and optional
+ * TSPLIB instances. Writes wall time, iterations, tours and tours/s needed to get within every gap of the best
+ * known result as JSON.
+ *
+ * Usage: Benchmark -seeds runs -i iterations -m solve|async|start -t threads -l label -o file.json -tsplib file.tsp[:optimum]
+ *
+ * The mode selects the TSP solver: solve runs the colony on the calling thread, async runs the barrier-free
+ * workers and start runs one thread per ant, as TSPTest does. Shortest path scenarios always run
+ * SPAntColony.start(), its only solver. Runs with one thread per ant are not reproducible from their seed.
+ *
+ * The best known result of a shortest path scenario is its Dijkstra distance, of a generated TSP instance the
+ * best tour found by any of its runs. TSPLIB instances are compared by closed tour length against the given
+ * optimum, or the best run if none is given. Since the colony optimizes open paths, the closed length of every
+ * finished tour is checked, not only of new best paths.
+ * The medians of the summary are taken over all runs, a run that missed a gap counts as infinitely slow,
+ * so the median is <code>null</code> unless more than half of the runs reached the gap.
+ */
+public class Benchmark {
+
+    private static final double[] GAPS = {0.10, 0.05, 0.02, 0.01, 0.0};
+
+    private static final double A = 0.1;
+    private static final double B = 2;
+    private static final double Q0 = 0.8;
+    private static final double R = 0.1;
+
+    public static void main(final String[] args) throws IOException {
+        // Print application prompt to console.
+        System.out.println("AntColonySystem benchmark for SP and TSP");
+
+        //Parameter
+        int nSeeds = 5;
+        int nIterations = 0;
+        String mode = "solve";
+        int nThreads = Runtime.getRuntime().availableProcessors();
+        String label = "";
+        String outputFile = "benchmark.json";
+
+        // the shipped launchers: SP_10/20/30x50x2500 test.bat and TSPTest.launch
+        final List<Scenario> scenarios = new ArrayList<>();
+        scenarios.add(Scenario.sp("sp-50-a10", 50, 10, 10, 2500));
+        scenarios.add(Scenario.sp("sp-50-a20", 50, 10, 20, 2500));
+        scenarios.add(Scenario.sp("sp-50-a30", 50, 10, 30, 2500));
+        scenarios.add(new Scenario("random-50-a30", "random", 50, 30, 2500));
+        scenarios.add(new Scenario("euclidean-100-a20", "euclidean", 100, 20, 1000));
+        scenarios.add(new Scenario("euclidean-200-a20", "euclidean", 200, 20, 500));
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-seeds":
+                    nSeeds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-i":
+                    nIterations = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-m":
+                    mode = args[i + 1];
+                    break;
+                case "-t":
+                    nThreads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-l":
+                    label = args[i + 1];
+                    break;
+                case "-o":
+                    outputFile = args[i + 1];
+                    break;
+                case "-tsplib":
+                    scenarios.add(Scenario.tsplib(args[i + 1]));
+                    break;
+                default:
+                    System.out.println("Unknown argument " + args[i]);
+            }
+        }
+
+        if (!mode.equals("solve") && !mode.equals("async") && !mode.equals("start")) {
+            throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+
+        final StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"label\": ").append(quote(label)).append(",\n");
+        json.append("  \"timestamp\": ").append(System.currentTimeMillis()).append(",\n");
+        json.append("  \"java\": ").append(quote(System.getProperty("java.version"))).append(",\n");
+        json.append("  \"processors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        json.append("  \"mode\": ").append(quote(mode)).append(",\n");
+        json.append("  \"gaps\": ").append(Arrays.toString(GAPS)).append(",\n");
+        json.append("  \"scenarios\": [");
+
+        for (int k = 0; k < scenarios.size(); k++) {
+            final Scenario scenario = scenarios.get(k);
+            final int iterations = nIterations > 0 ? nIterations : scenario.iterations;
+            final List<Run> runs = new ArrayList<>();
+            final int nNodes;
+            final String solver;
+            final int threads;
+            double bestKnown = scenario.optimum;
+            String bestKnownSource = "optimum";
+
+            if (scenario.generator.equals("sp")) {
+                // the same kind of graph as SPTest, from the source to the opposite side of the ring
+                final SparseAntGraph graph = SPTest.createGraph(new Random(scenario.nodes), scenario.nodes, scenario.neighbours);
+                final int target = scenario.nodes / 2;
+                nNodes = scenario.nodes;
+                solver = "start";
+                threads = scenario.ants;
+                bestKnown = SPTest.dijkstra(graph, 0, target);
+                bestKnownSource = "dijkstra";
+
+                for (int seed = 1; seed <= nSeeds; seed++) {
+                    graph.resetTau();
+                    final Run run = runSparseColony(graph, target, scenario, iterations, seed);
+                    runs.add(run);
+                    System.out.println(scenario.name + " seed " + seed + ": " + run.bestWeight + " in " + run.wallTimeMs + " ms");
+                }
+            } else {
+                final double[][] delta = scenario.createDelta();
+                final AntGraph graph = new AntGraph(delta.length, delta);
+                nNodes = delta.length;
+                solver = mode;
+                threads = mode.equals("async") ? Math.min(nThreads, scenario.ants) : mode.equals("start") ? scenario.ants : 1;
+
+                for (int seed = 1; seed <= nSeeds; seed++) {
+                    graph.load(delta.length, delta);
+                    final Run run = runColony(graph, scenario, iterations, seed, mode, nThreads);
+                    runs.add(run);
+                    System.out.println(scenario.name + " seed " + seed + ": " + run.bestWeight + " in " + run.wallTimeMs + " ms");
+                }
+
+                if (Double.isNaN(bestKnown)) {
+                    bestKnown = Double.MAX_VALUE;
+                    bestKnownSource = "best-run";
+                    for (final Run run : runs) {
+                        bestKnown = Math.min(bestKnown, run.bestWeight);
+                    }
+                }
+            }
+
+            json.append(k == 0 ? "\n" : ",\n");
+            appendScenario(json, scenario, nNodes, iterations, solver, threads, bestKnown, bestKnownSource, runs);
+        }
+
+        json.append("\n  ]\n}\n");
+
+        final PrintStream outs = new PrintStream(new FileOutputStream(outputFile), false, "UTF-8");
+        outs.print(json);
+        outs.close();
+        System.out.println("Results written to " + outputFile);
+    }
+
+    /**
+     * Runs one colony and records every best path improvement.
+     */
+    private static Run runColony(final AntGraph graph, final Scenario scenario, final int iterations, final long seed,
+            final String mode, final int nThreads) {
+        final Run run = new Run(seed);
+        final AntColony antColony = new AntColony(graph, scenario.ants, iterations, A, B, Q0, R);
+        antColony.setSeed(seed);
+
+        final long startTime = System.nanoTime();
+        if (scenario.closedTours) {
+            antColony.setTourListener((path, pathWeight, iteration, tours) ->
+                    run.improve(pathWeight + graph.getDelta(path.get(path.size() - 1), path.get(0)), startTime, iteration, tours));
+        } else {
+            antColony.setBestPathListener((path, pathWeight, iteration, tours) ->
+                    run.improve(pathWeight, startTime, iteration, tours));
+        }
+
+        if (mode.equals("async")) {
+            antColony.startAsync(nThreads, scenario.ants);
+        } else if (mode.equals("start")) {
+            antColony.start();
+        } else {
+            antColony.solve();
+        }
+
+        run.wallTimeMs = (System.nanoTime() - startTime) / 1e6;
+        run.iterations = antColony.getCurrentIteration();
+        run.tours = antColony.getNumberOfFinishedTours();
+        return run;
+    }
+
+    /**
+     * Runs one shortest path colony with one thread per ant and records every best path improvement.
+     */
+    private static Run runSparseColony(final SparseAntGraph graph, final int target, final Scenario scenario,
+            final int iterations, final long seed) {
+        final Run run = new Run(seed);
+        final SPAntColony antColony = new SPAntColony(graph, 0, target, scenario.ants, iterations, A, B, Q0, R);
+
+        final long startTime = System.nanoTime();
+        antColony.setBestPathListener((path, pathWeight, iteration, tours) ->
+                run.improve(pathWeight, startTime, iteration, tours));
+        antColony.start();
+
+        run.wallTimeMs = (System.nanoTime() - startTime) / 1e6;
+        run.iterations = antColony.getCurrentIteration();
+        run.tours = antColony.getNumberOfFinishedTours();
+        return run;
+    }
+
+    private static void appendScenario(final StringBuilder json, final Scenario scenario, final int nNodes, final int iterations,
+            final String solver, final int threads, final double bestKnown, final String bestKnownSource, final List<Run> runs) {
+        json.append("    {\n");
+        json.append("      \"name\": ").append(quote(scenario.name)).append(",\n");
+        json.append("      \"nodes\": ").append(nNodes).append(",\n");
+        json.append("      \"ants\": ").append(scenario.ants).append(",\n");
+        json.append("      \"maxIterations\": ").append(iterations).append(",\n");
+        json.append("      \"problem\": ").append(quote(scenario.generator.equals("sp") ? "shortest-path" : "tsp")).append(",\n");
+        json.append("      \"solver\": ").append(quote(solver)).append(",\n");
+        json.append("      \"threads\": ").append(threads).append(",\n");
+        json.append("      \"tourWeight\": ").append(quote(scenario.closedTours ? "closed" : "open")).append(",\n");
+        json.append("      \"bestKnown\": ").append(bestKnown).append(",\n");
+        json.append("      \"bestKnownSource\": ").append(quote(bestKnownSource)).append(",\n");
+
+        // median over all runs per gap, runs that did not reach the target are censored as infinitely slow
+        json.append("      \"summary\": [");
+        for (int g = 0; g < GAPS.length; g++) {
+            final List<Double> times = new ArrayList<>();
+            final List<Double> iterationCounts = new ArrayList<>();
+            int reachedRuns = 0;
+            for (final Run run : runs) {
+                final Improvement reached = run.reached(bestKnown * (1 + GAPS[g]));
+                if (reached != null) {
+                    times.add(reached.timeMs);
+                    iterationCounts.add((double) reached.iteration);
+                    reachedRuns++;
+                } else {
+                    times.add(Double.POSITIVE_INFINITY);
+                    iterationCounts.add(Double.POSITIVE_INFINITY);
+                }
+            }
+
+            json.append(g == 0 ? "\n" : ",\n");
+            json.append("        {\"gap\": ").append(GAPS[g])
+                    .append(", \"runs\": ").append(runs.size())
+                    .append(", \"reachedRuns\": ").append(reachedRuns)
+                    .append(", \"medianTimeMs\": ").append(median(times))
+                    .append(", \"medianIterations\": ").append(median(iterationCounts)).append("}");
+        }
+        json.append("\n      ],\n");
+
+        json.append("      \"runs\": [");
+        for (int i = 0; i < runs.size(); i++) {
+            final Run run = runs.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("        {\"seed\": ").append(run.seed)
+                    .append(", \"bestWeight\": ").append(run.bestWeight)
+                    .append(", \"wallTimeMs\": ").append(run.wallTimeMs)
+                    .append(", \"iterations\": ").append(run.iterations)
+                    .append(", \"tours\": ").append(run.tours)
+                    .append(", \"toursPerSecond\": ").append(perSecond(run.tours, run.wallTimeMs))
+                    .append(", \"targets\": [");
+
+            for (int g = 0; g < GAPS.length; g++) {
+                final Improvement reached = run.reached(bestKnown * (1 + GAPS[g]));
+                json.append(g == 0 ? "" : ", ");
+                json.append("{\"gap\": ").append(GAPS[g]);
+                if (reached == null) {
+                    json.append(", \"reached\": false}");
+                } else {
+                    json.append(", \"reached\": true")
+                            .append(", \"timeMs\": ").append(reached.timeMs)
+                            .append(", \"iteration\": ").append(reached.iteration)
+                            .append(", \"tours\": ").append(reached.tours)
+                            .append(", \"toursPerSecond\": ").append(perSecond(reached.tours, reached.timeMs)).append("}");
+                }
+            }
+            json.append("]}");
+        }
+        json.append("\n      ]\n");
+        json.append("    }");
+    }
+
+    /**
+     * @return the median as JSON number, or <code>null</code> if it is infinite or there are no values
+     */
+    private static String median(final List<Double> values) {
+        if (values.isEmpty()) {
+            return "null";
+        }
+
+        final double[] sorted = new double[values.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = values.get(i);
+        }
+        Arrays.sort(sorted);
+
+        final int middle = sorted.length / 2;
+        final double median = sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+        return Double.isInfinite(median) ? "null" : String.valueOf(median);
+    }
+
+    /**
+     * @return the rate per second as JSON number, or <code>null</code> if no time elapsed
+     */
+    private static String perSecond(final int count, final double timeMs) {
+        return timeMs > 0 ? String.valueOf(count / (timeMs / 1000)) : "null";
+    }
+
+    private static String quote(final String value) {
+        final StringBuilder builder = new StringBuilder("\"");
+        for (final char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+
+        return builder.append('"').toString();
+    }
+
+    /**
+     * A benchmark instance with its colony size and iteration limit.
+     */
+    private static class Scenario {
+        private final String name;
+        private final String generator;
+        private final int nodes;
+        private final int neighbours;
+        private final int ants;
+        private final int iterations;
+        private final String path;
+        private final double optimum;
+        private final boolean closedTours;
+
+        Scenario(final String name, final String generator, final int nodes, final int ants, final int iterations) {
+            this(name, generator, nodes, 0, ants, iterations, null, Double.NaN, false);
+        }
+
+        private Scenario(final String name, final String generator, final int nodes, final int neighbours, final int ants,
+                final int iterations, final String path, final double optimum, final boolean closedTours) {
+            this.name = name;
+            this.generator = generator;
+            this.nodes = nodes;
+            this.neighbours = neighbours;
+            this.ants = ants;
+            this.iterations = iterations;
+            this.path = path;
+            this.optimum = optimum;
+            this.closedTours = closedTours;
+        }
+
+        /**
+         * A shortest path scenario on a sparse graph generated as by SPTest.
+         */
+        static Scenario sp(final String name, final int nodes, final int neighbours, final int ants, final int iterations) {
+            return new Scenario(name, "sp", nodes, neighbours, ants, iterations, null, Double.NaN, false);
+        }
+
+        /**
+         * @param argument the TSPLIB file, optionally followed by ":" and the optimal tour length
+         */
+        static Scenario tsplib(final String argument) {
+            final int separator = argument.lastIndexOf(':');
+            String path = argument;
+            double optimum = Double.NaN;
+            if (separator > 1) {
+                path = argument.substring(0, separator);
+                optimum = Double.parseDouble(argument.substring(separator + 1));
+            }
+
+            final String fileName = path.substring(Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) + 1);
+            return new Scenario("tsplib-" + fileName, "tsplib", 0, 0, 20, 1000, path, optimum, true);
+        }
+
+        /**
+         * @return the distance matrix, generated from a fixed seed or read from the TSPLIB file
+         */
+        double[][] createDelta() throws IOException {
+            final Random random = new Random(nodes);
+
+            switch (generator) {
+                case "random":
+                    // the same kind of instance as TSPTest
+                    final double d[][] = new double[nodes][nodes];
+                    for (int i = 0; i < nodes; i++) {
+                        for (int j = i + 1; j < nodes; j++) {
+                            d[i][j] = random.nextDouble();
+                            d[j][i] = d[i][j];
+                        }
+                    }
+                    return d;
+                case "euclidean":
+                    final double[] x = new double[nodes];
+                    final double[] y = new double[nodes];
+                    for (int i = 0; i < nodes; i++) {
+                        x[i] = random.nextDouble();
+                        y[i] = random.nextDouble();
+                    }
+                    return euclideanDelta(x, y);
+                default:
+                    return readTsplib(path);
+            }
+        }
+    }
+
+    /**
+     * Reads a TSPLIB file with EUC_2D or CEIL_2D coordinates.
+     */
+    private static double[][] readTsplib(final String path) throws IOException {
+        final BufferedReader reader = new BufferedReader(new FileReader(path));
+        final List<double[]> coordinates = new ArrayList<>();
+        boolean ceil = false;
+        boolean inCoordinates = false;
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith("EDGE_WEIGHT_TYPE")) {
+                    final String type = line.substring(line.indexOf(':') + 1).trim();
+                    if (!type.equals("EUC_2D") && !type.equals("CEIL_2D")) {
+                        throw new IllegalArgumentException("Unsupported EDGE_WEIGHT_TYPE " + type + " in " + path);
+                    }
+                    ceil = type.equals("CEIL_2D");
+                } else if (line.startsWith("NODE_COORD_SECTION")) {
+                    inCoordinates = true;
+                } else if (line.equals("EOF")) {
+                    break;
+                } else if (inCoordinates && !line.isEmpty()) {
+                    final String[] fields = line.split("\\s+");
+                    coordinates.add(new double[] {Double.parseDouble(fields[1]), Double.parseDouble(fields[2])});
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        final double[] x = new double[coordinates.size()];
+        final double[] y = new double[coordinates.size()];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = coordinates.get(i)[0];
+            y[i] = coordinates.get(i)[1];
+        }
+
+        return roundedDelta(x, y, ceil);
+    }
+
+    private static double[][] euclideanDelta(final double[] x, final double[] y) {
+        final double d[][] = new double[x.length][x.length];
+        for (int i = 0; i < x.length; i++) {
+            for (int j = i + 1; j < x.length; j++) {
+                d[i][j] = Math.hypot(x[i] - x[j], y[i] - y[j]);
+                d[j][i] = d[i][j];
+            }
+        }
+        return d;
+    }
+
+    /**
+     * @return the distances rounded as defined by TSPLIB, nearest integer for EUC_2D and next integer for CEIL_2D
+     */
+    private static double[][] roundedDelta(final double[] x, final double[] y, final boolean ceil) {
+        final double d[][] = new double[x.length][x.length];
+        for (int i = 0; i < x.length; i++) {
+            for (int j = i + 1; j < x.length; j++) {
+                final double distance = Math.hypot(x[i] - x[j], y[i] - y[j]);
+                d[i][j] = ceil ? Math.ceil(distance) : Math.floor(distance + 0.5);
+                d[j][i] = d[i][j];
+            }
+        }
+        return d;
+    }
+
+    /**
+     * A best path improvement of a run.
+     */
+    private static class Improvement {
+        private final double timeMs;
+        private final int iteration;
+        private final int tours;
+        private final double weight;
+
+        Improvement(final double timeMs, final int iteration, final int tours, final double weight) {
+            this.timeMs = timeMs;
+            this.iteration = iteration;
+            this.tours = tours;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * The improvements and totals of one seeded run.
+     */
+    private static class Run {
+        private final long seed;
+        private final List<Improvement> improvements = new ArrayList<>();
+        private double bestWeight = Double.MAX_VALUE;
+        private double wallTimeMs;
+        private int iterations;
+        private int tours;
+
+        Run(final long seed) {
+            this.seed = seed;
+        }
+
+        /**
+         * Records the tour if it is the best one of the run so far.
+         */
+        void improve(final double weight, final long startTime, final int iteration, final int tours) {
+            if (weight < bestWeight) {
+                bestWeight = weight;
+                improvements.add(new Improvement((System.nanoTime() - startTime) / 1e6, iteration, tours, weight));
+            }
+        }
+
+        /**
+         * @return the first improvement at or below the target weight, or <code>null</code>
+         */
+        Improvement reached(final double target) {
+            for (final Improvement improvement : improvements) {
+                if (improvement.weight <= target * (1 + 1e-12)) {
+                    return improvement;
+                }
+            }
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2007-2016 Ugo Chirico
+ *
+ * This is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Affero GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package colony.test;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import colony.SPAntColony;
+import colony.SparseAntGraph;
+
+/**
+ * Shortest path test on a random sparse graph.
+ *
+ * Usage: SPTest -a ants -n nodes -i iterations -r repetitions -nz neighbours per node
+ */
+public class SPTest {
+    private static Random s_ran = new Random(System.currentTimeMillis());
+
+    public static void main(final String[] args) {
+        // Print application prompt to console.
+        System.out.println("AntColonySystem for SP");
+
+        //Parameter
+        int nAnts = 30;
+        int nNodes = 50;
+        int nIterations = 2500;
+        int nRepetitions = 1;
+        int nNeighbours = 10;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            final int value = Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+                case "-a":
+                    nAnts = value;
+                    break;
+                case "-n":
+                    nNodes = value;
+                    break;
+                case "-i":
+                    nIterations = value;
+                    break;
+                case "-r":
+                    nRepetitions = value;
+                    break;
+                case "-nz":
+                    nNeighbours = value;
+                    break;
+                default:
+                    System.out.println("Unknown argument " + args[i]);
+            }
+        }
+
+        final SparseAntGraph graph = createGraph(s_ran, nNodes, Math.min(nNeighbours, nNodes - 1));
+        // the ring joins node 0 directly to node nNodes - 1, so the target is taken from the opposite side of the ring
+        final int source = 0;
+        final int target = nNodes / 2;
+        final double optimum = dijkstra(graph, source, target);
+
+        System.out.println("Edges: " + graph.getNumberOfEdges() + ", shortest path weight: " + optimum);
+
+        try {
+            final PrintStream outs1 = new PrintStream(new FileOutputStream("" + nNodes + "x" + nNeighbours + "_spgraph.txt"));
+            outs1.print(graph);
+            outs1.close();
+
+            final PrintStream outs2 = new PrintStream(
+                    new FileOutputStream("" + nNodes + "x" + nAnts + "x" + nIterations + "_sp_results.txt"));
+
+            for (int i = 0; i < nRepetitions; i++) {
+                graph.resetTau();
+                final SPAntColony antColony = new SPAntColony(graph, source, target, nAnts, nIterations, 0.1, 2, 0.8, 0.1);
+                antColony.start();
+                outs2.println(i + "," + antColony.getBestPathValue() + "," + antColony.getLastBestPathIteration() + "," + optimum);
+            }
+
+            outs2.close();
+        } catch (final Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Creates a random connected undirected graph: a ring through all nodes plus random edges
+     * until every node has about nNeighbours neighbours. Every undirected edge is stored in both directions.
+     */
+    static SparseAntGraph createGraph(final Random random, final int nNodes, final int nNeighbours) {
+        final int nEdges = Math.max(nNodes, nNodes * nNeighbours / 2);
+        final int[] from = new int[2 * nEdges];
+        final int[] to = new int[2 * nEdges];
+        final double[] weights = new double[2 * nEdges];
+
+        for (int e = 0; e < nEdges; e++) {
+            final int r = e < nNodes ? e : random.nextInt(nNodes);
+            final int s = e < nNodes ? (e + 1) % nNodes : random.nextInt(nNodes);
+            final double weight = random.nextDouble();
+            from[2 * e] = r;
+            to[2 * e] = s;
+            from[2 * e + 1] = s;
+            to[2 * e + 1] = r;
+            weights[2 * e] = weight;
+            weights[2 * e + 1] = weight;
+        }
+
+        return SparseAntGraph.fromEdges(nNodes, from, to, weights);
+    }
+
+    /**
+     * @return the weight of the shortest path between source and target, used as reference value
+     */
+    static double dijkstra(final SparseAntGraph graph, final int source, final int target) {
+        final double[] distance = new double[graph.getNumberOfNodes()];
+        final boolean[] done = new boolean[graph.getNumberOfNodes()];
+        Arrays.fill(distance, Double.MAX_VALUE);
+        distance[source] = 0;
+
+        for (int k = 0; k < graph.getNumberOfNodes(); k++) {
+            int r = -1;
+            for (int i = 0; i < distance.length; i++) {
+                if (!done[i] && (r < 0 || distance[i] < distance[r])) {
+                    r = i;
+                }
+            }
+            if (r == target || distance[r] == Double.MAX_VALUE) {
+                break;
+            }
+            done[r] = true;
+
+            for (int e = graph.getFirstEdge(r); e < graph.getLastEdge(r); e++) {
+                final int s = graph.getTarget(e);
+                distance[s] = Math.min(distance[s], distance[r] + graph.getDelta(e));
+            }
+        }
+
+        return distance[target];
+    }
+
+}
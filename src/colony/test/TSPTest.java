@@ -24,6 +24,7 @@ import java.util.Random;
 
 import colony.AntColony;
 import colony.AntGraph;
+import colony.PheromoneCache;
 
 public class TSPTest {
     private static Random s_ran = new Random(System.currentTimeMillis());
@@ -118,6 +119,14 @@ public class TSPTest {
 			startRoutine(0.1,2,0.8,0.1,graph,outs2,"Änderung R: Opti", nAnts, nIterations);
 			startRoutine(0.1,2,0.8,0.9,graph,outs2,"Änderung R: High", nAnts, nIterations);
 
+			//Warmstart: the second solve starts from the pheromones of the first one
+			final PheromoneCache cache = new PheromoneCache(16, 0.05);
+			startRoutine(0.1,2,0.8,0.1,graph,outs2,"Warmstart: Kalt", nAnts, nIterations, cache);
+			startRoutine(0.1,2,0.8,0.1,graph,outs2,"Warmstart: Warm", nAnts, nIterations / 10, cache);
+
+			//Asynchron: no barrier between iterations, global update after every nAnts tours
+			startAsyncRoutine(0.1,2,0.8,0.1,graph,outs2,"Asynchron: Opti", nAnts, nIterations, nAnts);
+
             outs2.close();
         } catch (final Exception ex) {
         }
@@ -130,4 +139,20 @@ public class TSPTest {
 		outs2.println(name + ", " + antColony.getBestPathValue() + "," + antColony.getLastBestPathIteration());
     }
 
+	public static void startRoutine(double A, double B, double Q0, double R, AntGraph graph, PrintStream outs2, String name, int nAnts, int nIterations, PheromoneCache cache) {
+		graph.resetTau();
+		final AntColony antColony = new AntColony(graph, nAnts, nIterations,A,B,Q0,R );
+		final boolean seeded = cache.seed(antColony);
+		antColony.start();
+		cache.store(antColony);
+		outs2.println(name + ", " + antColony.getBestPathValue() + "," + antColony.getLastBestPathIteration() + "," + seeded);
+    }
+
+	public static void startAsyncRoutine(double A, double B, double Q0, double R, AntGraph graph, PrintStream outs2, String name, int nAnts, int nIterations, int updateInterval) {
+		graph.resetTau();
+		final AntColony antColony = new AntColony(graph, nAnts, nIterations,A,B,Q0,R );
+		antColony.startAsync(Runtime.getRuntime().availableProcessors(), updateInterval);
+		outs2.println(name + ", " + antColony.getBestPathValue() + "," + antColony.getLastBestPathIteration());
+    }
+
 }